@@ -0,0 +1,38 @@
+#!/bin/sh
+# Measure the wall-clock time of a short scoring job with a plain JVM, with
+# an AppCDS archive and as a native image.
+#
+#   mvn -B -Pappcds package        # target/BPL-1.0-SNAPSHOT.jar and target/score.jsa
+#   mvn -B -Pnative package        # target/score (needs GraalVM)
+#   bench/startup.sh [runs]
+set -e
+
+cd "$(dirname "$0")/.."
+RUNS=${1:-20}
+MODEL=bench/xor.model
+INPUTS=bench/xor-inputs.csv
+CLASSES=target/BPL-1.0-SNAPSHOT.jar
+
+measure() {
+    name=$1
+    shift
+    start=$(date +%s%N)
+    i=0
+    while [ $i -lt "$RUNS" ]; do
+        "$@" > /dev/null
+        i=$((i + 1))
+    done
+    end=$(date +%s%N)
+    echo "$name: $(( (end - start) / RUNS / 1000000 )) ms per run"
+}
+
+measure "jvm" java -Xshare:auto -XX:TieredStopAtLevel=1 -cp "$CLASSES" Score "$MODEL" "$INPUTS"
+
+if [ -f target/score.jsa ]; then
+    measure "jvm+appcds" java -XX:SharedArchiveFile=target/score.jsa -XX:TieredStopAtLevel=1 \
+        -cp "$CLASSES" Score "$MODEL" "$INPUTS"
+fi
+
+if [ -x target/score ]; then
+    measure "native" target/score "$MODEL" "$INPUTS"
+fi
@@ -1,3 +1,4 @@
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -14,6 +15,11 @@ public class BackPropagation {
 
     private double[][] expected;
 
+    // Optional passes from NetworkCompiler, with their weight delta buffer
+    private CompiledNetwork compiled;
+
+    private double[] gradient;
+
 
     public BackPropagation(double learningRate, double momentum, double[][] input, double[][] expected, FeedforwardNetwork feedforwardNetwork) {
         this.learningRate = learningRate;
@@ -28,7 +34,21 @@ public class BackPropagation {
         }
     }
 
+    /**
+     * Run the forward and error passes through a CompiledNetwork of this
+     * network instead of the layers. learn is unchanged.
+     *
+     * @param compiled the passes, or null to go back to the layers
+     */
+    public void setCompiled(CompiledNetwork compiled) {
+        this.compiled = compiled;
+        this.gradient = compiled == null ? null : new double[network.getWeightCount()];
+    }
+
     public double train() {
+        if (compiled != null) {
+            return trainCompiled();
+        }
         double error = 0;
         for (int i = 0; i < input.length; i ++) {
             // forward
@@ -45,6 +65,24 @@ public class BackPropagation {
         return error;
     }
 
+    private double trainCompiled() {
+        double error = 0;
+        for (int i = 0; i < input.length; i++) {
+            Arrays.fill(gradient, 0);
+            final double[] outputs = compiled.calcError(input[i], expected[i], gradient);
+            for (int j = 0; j < outputs.length; j++) {
+                error += Math.pow(outputs[j] - expected[i][j], 2);
+            }
+            int offset = 0;
+            for (FeedforwardLayer layer : network.getLayers()) {
+                getBackPropagationLayer(layer).accumulate(gradient, offset);
+                offset += layer.getMatrixSize();
+            }
+            learn();
+        }
+        return error;
+    }
+
     /**
      * Calculate error for every layer
      * @param expected the expected output vector
@@ -76,6 +76,24 @@ public class BackPropagationLayer {
         }
     }
 
+    /**
+     * Add weight deltas computed elsewhere, e.g. by CompiledNetwork.calcError,
+     * instead of calling calcError.
+     *
+     * @param gradient the deltas, laid out like FeedforwardNetwork.getWeights
+     * @param offset   where this layer's deltas start
+     */
+    public void accumulate(double[] gradient, int offset) {
+        if (!feedforwardLayer.hasMatrix()) {
+            return;
+        }
+        for (int r = 0; r < accumulateMatrixDelta.getRows(); r++) {
+            for (int c = 0; c < accumulateMatrixDelta.getCols(); c++) {
+                accumulateMatrixDelta.add(r, c, gradient[offset++]);
+            }
+        }
+    }
+
     private void accumulateThresholdDelta(int i, double errorDelta) {
         accumulateMatrixDelta.add(biasRow, i, errorDelta);
     }
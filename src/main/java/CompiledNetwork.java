@@ -0,0 +1,47 @@
+/**
+ * The forward and backward pass of a FeedforwardNetwork, built by
+ * NetworkCompiler for its topology.
+ *
+ * The passes read the network's current weights on every call, so one
+ * instance stays valid while the network trains. Only local buffers are
+ * written, so several threads can use the same instance; each layer's
+ * matrix is read once per call, like a FrozenNetwork does.
+ */
+public interface CompiledNetwork {
+    /**
+     * Compute the output based on the input value.
+     *
+     * @param input input value
+     * @return a new output vector
+     */
+    public double[] computeOutputs(double[] input);
+
+    /**
+     * Compute the output, then the error of every layer for the expected
+     * output, like BackPropagationLayer.calcError. The weight deltas that
+     * calcError accumulates are added to gradient instead, laid out like
+     * FeedforwardNetwork.getWeights.
+     *
+     * @param input    input value
+     * @param expected the expected output
+     * @param gradient receives the weight deltas of this pattern
+     * @return a new output vector
+     */
+    public double[] calcError(double[] input, double[] expected, double[] gradient);
+
+    /**
+     * @return true if this pass was generated by NetworkCompiler, false if
+     * it is the interpreted fallback.
+     */
+    public default boolean isCompiled() {
+        return false;
+    }
+
+    /**
+     * @return why NetworkCompiler fell back to the interpreted pass, or null
+     * if the pass is compiled.
+     */
+    public default String getFallbackReason() {
+        return null;
+    }
+}
@@ -1,21 +1,34 @@
 import org.jfree.chart.ChartFactory;
 import org.jfree.chart.ChartPanel;
+import org.jfree.chart.ChartUtilities;
 import org.jfree.chart.JFreeChart;
 import org.jfree.chart.plot.PlotOrientation;
 import org.jfree.data.xy.XYSeries;
 import org.jfree.data.xy.XYSeriesCollection;
 
 import javax.swing.*;
+import java.io.File;
+import java.io.IOException;
 
 public class Draw extends JFrame {
     public void draw(XYSeries series) {
-        XYSeriesCollection dataset = new XYSeriesCollection();
-        dataset.addSeries(series);
-        JFreeChart chart = ChartFactory.createXYLineChart("title", "epoch", "error",
-                dataset, PlotOrientation.VERTICAL, true, true, false);
-        ChartPanel chartPanel = new ChartPanel(chart);
+        ChartPanel chartPanel = new ChartPanel(createChart(series));
         chartPanel.setPreferredSize( new java.awt.Dimension( 560 , 367 ) );
         setContentPane(chartPanel);
         setVisible(true);
     }
+
+    /**
+     * Render the series into a PNG file, works on headless runs too.
+     */
+    public static void saveAsPNG(XYSeries series, File file, int width, int height) throws IOException {
+        ChartUtilities.saveChartAsPNG(file, createChart(series), width, height);
+    }
+
+    private static JFreeChart createChart(XYSeries series) {
+        XYSeriesCollection dataset = new XYSeriesCollection();
+        dataset.addSeries(series);
+        return ChartFactory.createXYLineChart("title", "epoch", "error",
+                dataset, PlotOrientation.VERTICAL, true, true, false);
+    }
 }
@@ -1,6 +1,12 @@
 import activation.ActivationFunction;
 import activation.ActivationSigmoid;
+import initialization.Initializer;
+import initialization.InitializerUniform;
 import math.Matrix;
+import math.MatrixKernel;
+import math.MatrixKernelScalar;
+
+import java.util.SplittableRandom;
 
 /**
  * FeedforwardLayer: This class represents one layer in a
@@ -37,6 +43,11 @@ public class FeedforwardLayer {
      */
     private final ActivationFunction activationFunction;
 
+    /**
+     * The kernel that multiplies the input with the weight and bias matrix.
+     */
+    private MatrixKernel kernel = new MatrixKernelScalar();
+
     /**
      * Construct this layer with a non-default bias function.
      *
@@ -83,34 +94,84 @@ public class FeedforwardLayer {
             }
         }
 
-        final Matrix inputMatrix = createInputMatrix(values);
+        final double[] input = createInput(values);
+        final double[] sums = new double[this.next.getNeuronCount()];
+        this.kernel.multiply(input, this.matrix, sums);
+
+        // compute value for the next layer
+        activate(sums);
+    }
 
-        for (i = 0; i < this.next.getNeuronCount(); i++) {
-            final Matrix col = this.matrix.getCol(i);
-            final double sum = col.dotProduct(inputMatrix);
-            // compute value for the next layer
-            this.next.setValue(i, this.activationFunction.activation(sum));
+    /**
+     * Create the weighted sums of the next layer holding only the bias, so
+     * parts of the input can be added one at a time with addToSums.
+     *
+     * @return The sums of the next layer.
+     */
+    public double[] createSums() {
+        final int bias = getNeuronCount();
+        final double[] sums = new double[this.next.getNeuronCount()];
+        for (int i = 0; i < sums.length; i++) {
+            sums[i] = this.matrix.get(bias, i);
         }
+        return sums;
     }
 
     /**
-     * Take a simple double array and turn it into a matrix that can be used to
-     * calculate the results of the input array. Also takes into account the
-     * bias.
+     * Add the contribution of a part of the input pattern to the weighted
+     * sums of the next layer. The part is also stored as this layer's values.
      *
-     * @param pattern
-     * @return A matrix that represents the input pattern.
+     * @param pattern The part of the input pattern.
+     * @param offset  The neuron the part starts at.
+     * @param sums    The sums of the next layer.
      */
-    private Matrix createInputMatrix(final double[] pattern) {
-        final Matrix result = new Matrix(1, pattern.length + 1);
-        for (int i = 0; i < pattern.length; i++) {
-            result.set(0, i, pattern[i]);
+    public void addToSums(final double[] pattern, final int offset, final double[] sums) {
+        for (int r = 0; r < pattern.length; r++) {
+            final double x = pattern[r];
+            setValue(offset + r, x);
+            for (int c = 0; c < sums.length; c++) {
+                sums[c] += x * this.matrix.get(offset + r, c);
+            }
         }
+    }
+
+    /**
+     * Correct the weighted sums of the next layer for a change of one
+     * neuron's value.
+     *
+     * @param neuron The neuron whose value changed.
+     * @param delta  The new value minus the old value.
+     * @param sums   The sums of the next layer.
+     */
+    public void addDeltaToSums(final int neuron, final double delta, final double[] sums) {
+        for (int c = 0; c < sums.length; c++) {
+            sums[c] += delta * this.matrix.get(neuron, c);
+        }
+    }
 
-        // add a "fake" first column to the input so that the bias is
-        // always multiplied by one, resulting in it just being added.
-        result.set(0, pattern.length, 1);
+    /**
+     * Set the values of the next layer from its weighted sums.
+     *
+     * @param sums The sums of the next layer.
+     */
+    public void activate(final double[] sums) {
+        for (int i = 0; i < sums.length; i++) {
+            this.next.setValue(i, this.activationFunction.activation(sums[i]));
+        }
+    }
 
+    /**
+     * Take a simple double array and append the bias input, so that the
+     * bias row of the matrix is always multiplied by one, resulting in it
+     * just being added.
+     *
+     * @param pattern
+     * @return An array that represents the input pattern.
+     */
+    private double[] createInput(final double[] pattern) {
+        final double[] result = new double[pattern.length + 1];
+        System.arraycopy(pattern, 0, result, 0, pattern.length);
+        result[pattern.length] = 1;
         return result;
     }
 
@@ -239,16 +300,26 @@ public class FeedforwardLayer {
 //    }
 
     /**
-     * Reset the weight matrix and bias values to random numbers between -1
-     * and 1.
+     * Reset the weight matrix and bias values to random numbers between lower
+     * and upper.
      */
     public void reset(double lower, double upper) {
+        reset(new InitializerUniform(lower, upper), new SplittableRandom());
+    }
 
+    /**
+     * Reset the weight matrix and bias values with an initialization scheme.
+     * The layer gets a new matrix, the old one is left as it was.
+     *
+     * @param initializer The scheme that fills the matrix.
+     * @param random      The generator owned by this layer.
+     */
+    public void reset(final Initializer initializer, final SplittableRandom random) {
         if (this.matrix != null) {
-            this.matrix.randomize(lower, upper);
-
+            final Matrix matrix = new Matrix(this.matrix.getRows(), this.matrix.getCols());
+            initializer.initialize(matrix, random);
+            setMatrix(matrix);
         }
-
     }
 
     /**
@@ -263,6 +334,8 @@ public class FeedforwardLayer {
 
     /**
      * Assign a new weight and bias matrix to this layer.
+     * Updates must go through here with a new matrix rather than change the
+     * current one in place, FrozenNetwork views may still hold the old one.
      *
      * @param matrix The new matrix.
      */
@@ -307,4 +380,20 @@ public class FeedforwardLayer {
         return this.activationFunction;
     }
 
+    /**
+     * @return the kernel that multiplies the input with the matrix.
+     */
+    public MatrixKernel getKernel() {
+        return this.kernel;
+    }
+
+    /**
+     * Set the kernel that multiplies the input with the matrix.
+     *
+     * @param kernel the kernel to use.
+     */
+    public void setKernel(final MatrixKernel kernel) {
+        this.kernel = kernel;
+    }
+
 }
\ No newline at end of file
@@ -1,5 +1,17 @@
+import initialization.Initializer;
+import initialization.InitializerUniform;
+import math.Matrix;
+import math.MatrixKernelTuner;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.SplittableRandom;
 
 public class FeedforwardNetwork {
     private List<FeedforwardLayer> layers = new ArrayList<>();
@@ -46,6 +58,217 @@ public class FeedforwardNetwork {
         return outputLayer.getValues();
     }
 
+    /**
+     * Compute the output from the first hidden layer on, the values of the
+     * first hidden layer must already be set.
+     * @return output vector
+     */
+    public double[] computeDeeperOutputs() {
+        for (int i = 1; i < layers.size(); i++) {
+            if (layers.get(i).isHidden()) {
+                layers.get(i).computeOutputs(null);
+            }
+        }
+        return outputLayer.getValues();
+    }
+
+    /**
+     * Compute the first output for every candidate action of one state, where
+     * the input of the network is the state followed by the action.
+     * The state's part of the first layer sums is only computed once, every
+     * action just adds its own columns.
+     *
+     * @param state   the state part of the input
+     * @param actions the action part of the input, one row per action, at
+     *                least one
+     * @return the first output for every action
+     */
+    public double[] computeActionOutputs(double[] state, double[][] actions) {
+        final FeedforwardLayer first = inputLayer;
+        if (state.length >= first.getNeuronCount()) {
+            throw new IllegalArgumentException("State has " + state.length
+                    + " values, leaving no room for an action in the " + first.getNeuronCount()
+                    + " input neurons");
+        }
+        if (actions.length == 0) {
+            throw new IllegalArgumentException("No candidate actions");
+        }
+        final double[] stateSums = first.createSums();
+        first.addToSums(state, 0, stateSums);
+
+        final double[] result = new double[actions.length];
+        final double[] sums = new double[stateSums.length];
+        for (int i = 0; i < actions.length; i++) {
+            if (state.length + actions[i].length != first.getNeuronCount()) {
+                throw new IllegalArgumentException("State and action have " + (state.length + actions[i].length)
+                        + " values but the input layer has " + first.getNeuronCount() + " neurons");
+            }
+            System.arraycopy(stateSums, 0, sums, 0, sums.length);
+            first.addToSums(actions[i], state.length, sums);
+            first.activate(sums);
+            computeDeeperOutputs();
+            result[i] = outputLayer.getValue(0);
+        }
+        return result;
+    }
+
+    /**
+     * Find the candidate action with the highest first output for a state.
+     *
+     * @param state   the state part of the input
+     * @param actions the action part of the input, one row per action
+     * @return the index of the best action
+     */
+    public int bestAction(double[] state, double[][] actions) {
+        final double[] outputs = computeActionOutputs(state, actions);
+        int best = 0;
+        for (int i = 1; i < outputs.length; i++) {
+            if (outputs[i] > outputs[best]) {
+                best = i;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Pick the fastest kernel for every layer based on its matrix shape.
+     * Shapes already in the profile file are not timed again. Not called by
+     * addLayer, since it writes the profile and times every new shape, so
+     * call it once the topology is complete.
+     *
+     * @param profile the file that caches the decisions
+     * @throws IOException if the profile can't be written
+     */
+    public void tuneKernels(File profile) throws IOException {
+        final MatrixKernelTuner tuner = new MatrixKernelTuner(profile);
+        for (final FeedforwardLayer layer : this.layers) {
+            if (layer.hasMatrix()) {
+                layer.setKernel(tuner.select(layer.getMatrix().getRows(),
+                        layer.getMatrix().getCols()));
+            }
+        }
+        tuner.save();
+    }
+
+    /**
+     * Copy every weight and bias of the network into one array, layer by
+     * layer and row by row.
+     *
+     * @return the flattened weights
+     */
+    public double[] getWeights() {
+        final double[] weights = new double[getWeightCount()];
+        int index = 0;
+        for (final FeedforwardLayer layer : this.layers) {
+            if (layer.hasMatrix()) {
+                final Matrix matrix = layer.getMatrix();
+                for (int r = 0; r < matrix.getRows(); r++) {
+                    for (int c = 0; c < matrix.getCols(); c++) {
+                        weights[index++] = matrix.get(r, c);
+                    }
+                }
+            }
+        }
+        return weights;
+    }
+
+    /**
+     * Replace every weight and bias of the network from an array laid out
+     * like {@link #getWeights()}. Every layer gets a new matrix, the old ones
+     * are left untouched.
+     *
+     * @param weights the flattened weights
+     */
+    public void setWeights(double[] weights) {
+        if (weights.length != getWeightCount()) {
+            throw new IllegalArgumentException("Expected " + getWeightCount()
+                    + " weights but got " + weights.length);
+        }
+
+        int index = 0;
+        for (final FeedforwardLayer layer : this.layers) {
+            if (layer.hasMatrix()) {
+                final Matrix old = layer.getMatrix();
+                final Matrix matrix = new Matrix(old.getRows(), old.getCols());
+                for (int r = 0; r < matrix.getRows(); r++) {
+                    for (int c = 0; c < matrix.getCols(); c++) {
+                        matrix.set(r, c, weights[index++]);
+                    }
+                }
+                layer.setMatrix(matrix);
+            }
+        }
+    }
+
+    /**
+     * @return the number of weights and biases in the network.
+     */
+    public int getWeightCount() {
+        int size = 0;
+        for (final FeedforwardLayer layer : this.layers) {
+            size += layer.getMatrixSize();
+        }
+        return size;
+    }
+
+    /**
+     * Save the network as text: the neuron count of every layer on the first
+     * line, then one weight per line laid out like {@link #getWeights()}.
+     * Only the topology and weights are saved, every layer is loaded back
+     * with the sigmoid activation.
+     *
+     * @param file the file to write
+     * @throws IOException if the file can't be written
+     */
+    public void save(File file) throws IOException {
+        try (BufferedWriter writer = new BufferedWriter(new FileWriter(file))) {
+            final StringBuilder topology = new StringBuilder();
+            for (final FeedforwardLayer layer : this.layers) {
+                topology.append(topology.length() == 0 ? "" : " ").append(layer.getNeuronCount());
+            }
+            writer.write(topology.toString());
+            writer.newLine();
+            for (double weight : getWeights()) {
+                writer.write(Double.toString(weight));
+                writer.newLine();
+            }
+        }
+    }
+
+    /**
+     * Load a network written by {@link #save(File)}.
+     *
+     * @param file the file to read
+     * @return the network
+     * @throws IOException if the file can't be read or is malformed
+     */
+    public static FeedforwardNetwork load(File file) throws IOException {
+        try (BufferedReader reader = new BufferedReader(new FileReader(file))) {
+            final String topology = reader.readLine();
+            if (topology == null) {
+                throw new IOException("Empty network file " + file);
+            }
+            final FeedforwardNetwork network = new FeedforwardNetwork();
+            for (String neuronCount : topology.trim().split("\\s+")) {
+                network.addLayer(new FeedforwardLayer(Integer.parseInt(neuronCount)));
+            }
+
+            final double[] weights = new double[network.getWeightCount()];
+            for (int i = 0; i < weights.length; i++) {
+                final String line = reader.readLine();
+                if (line == null) {
+                    throw new IOException("Expected " + weights.length + " weights in " + file
+                            + " but got " + i);
+                }
+                weights[i] = Double.parseDouble(line.trim());
+            }
+            network.setWeights(weights);
+            return network;
+        } catch (NumberFormatException e) {
+            throw new IOException("Malformed network file " + file, e);
+        }
+    }
+
     public List<FeedforwardLayer> getLayers() {
         return layers;
     }
@@ -54,10 +277,27 @@ public class FeedforwardNetwork {
      * Reset the weight matrix and the bias.
      */
     public void reset(double lower, double upper) {
+        reset(new InitializerUniform(lower, upper), new SplittableRandom());
+    }
+
+    /**
+     * Reset the weight matrix and the bias from a seed. The same seed always
+     * gives the same weights.
+     *
+     * @param initializer the scheme that fills every matrix
+     * @param seed        the seed of the generator
+     */
+    public void reset(Initializer initializer, long seed) {
+        reset(initializer, new SplittableRandom(seed));
+    }
+
+    /**
+     * Reset the weight matrix and the bias. Every layer gets its own
+     * generator split off from random, in layer order.
+     */
+    private void reset(Initializer initializer, SplittableRandom random) {
         for (final FeedforwardLayer layer : this.layers) {
-            layer.reset(lower, upper);
+            layer.reset(initializer, random.split());
         }
     }
 }
-
-
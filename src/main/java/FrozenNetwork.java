@@ -0,0 +1,111 @@
+import activation.ActivationFunction;
+import math.Matrix;
+import math.MatrixKernel;
+
+import java.util.List;
+
+/**
+ * FrozenNetwork: a read-only view of a FeedforwardNetwork's weights as they
+ * were when the view was taken, for scoring on another thread while the
+ * network keeps training.
+ *
+ * No weights are copied. BackPropagationLayer.learn, setWeights and reset
+ * always give a layer a new Matrix instead of changing the old one, so the
+ * view just keeps the matrices it saw.
+ *
+ * Changing one of those matrices directly through Matrix.set breaks the
+ * view. That is only detected on a best-effort basis: the modification
+ * count is checked before each layer, without synchronization, so a change
+ * made on another thread or during a multiply may go unnoticed. When it is
+ * seen, computeOutputs and restore throw IllegalStateException.
+ */
+public class FrozenNetwork {
+    private final Matrix[] matrices;
+
+    // The modification count of every matrix when the view was taken
+    private final int[] modCounts;
+
+    private final ActivationFunction[] activationFunctions;
+
+    private final MatrixKernel[] kernels;
+
+    private final int inputCount;
+
+    /**
+     * Take a view of the current weights of the network.
+     *
+     * @param network the network
+     */
+    public FrozenNetwork(FeedforwardNetwork network) {
+        final List<FeedforwardLayer> layers = network.getLayers();
+        final int count = layers.size() - 1;
+        this.matrices = new Matrix[count];
+        this.modCounts = new int[count];
+        this.activationFunctions = new ActivationFunction[count];
+        this.kernels = new MatrixKernel[count];
+        for (int i = 0; i < count; i++) {
+            final FeedforwardLayer layer = layers.get(i);
+            matrices[i] = layer.getMatrix();
+            modCounts[i] = matrices[i].getModCount();
+            activationFunctions[i] = layer.getActivationFunction();
+            kernels[i] = layer.getKernel();
+        }
+        this.inputCount = layers.get(0).getNeuronCount();
+    }
+
+    /**
+     * Compute the output based on the input value. Only local buffers are
+     * written, so several threads can use the same view.
+     *
+     * @param input input value
+     * @return a new output vector
+     */
+    public double[] computeOutputs(double[] input) {
+        if (input.length != inputCount) {
+            throw new IllegalArgumentException("Input has " + input.length
+                    + " values but the network takes " + inputCount);
+        }
+        double[] values = input;
+        for (int l = 0; l < matrices.length; l++) {
+            checkUnchanged(l);
+            // append the bias input
+            final double[] withBias = new double[values.length + 1];
+            System.arraycopy(values, 0, withBias, 0, values.length);
+            withBias[values.length] = 1;
+
+            final double[] sums = new double[matrices[l].getCols()];
+            kernels[l].multiply(withBias, matrices[l], sums);
+            for (int i = 0; i < sums.length; i++) {
+                sums[i] = activationFunctions[l].activation(sums[i]);
+            }
+            values = sums;
+        }
+        return values;
+    }
+
+    /**
+     * Put a copy of the weights of this view back into the network, e.g. to
+     * go back to the best epoch after early stopping. The view keeps its
+     * own matrices, so training the network afterwards can't change it.
+     *
+     * @param network a network with the same topology
+     */
+    public void restore(FeedforwardNetwork network) {
+        final List<FeedforwardLayer> layers = network.getLayers();
+        if (layers.size() - 1 != matrices.length) {
+            throw new IllegalArgumentException("Expected " + (matrices.length + 1)
+                    + " layers but got " + layers.size());
+        }
+        for (int i = 0; i < matrices.length; i++) {
+            checkUnchanged(i);
+            layers.get(i).setMatrix(new Matrix(matrices[i]));
+        }
+    }
+
+    private void checkUnchanged(int layer) {
+        if (matrices[layer].getModCount() != modCounts[layer]) {
+            throw new IllegalStateException("The matrix of layer " + layer
+                    + " was changed in place after the view was taken");
+        }
+    }
+}
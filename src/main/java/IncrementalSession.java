@@ -0,0 +1,160 @@
+import math.Matrix;
+
+/**
+ * IncrementalSession: evaluates a FeedforwardNetwork for a stream of inputs
+ * that differ from the previous input in only a few positions.
+ *
+ * The weighted sums of the first hidden layer are kept for the last input.
+ * A changed input position only adds its delta times its weight row to the
+ * sums, then the deeper layers are computed as usual. The sums are
+ * recomputed from scratch every refreshInterval incremental updates to
+ * bound floating point drift, and whenever the weights were replaced or
+ * changed in place.
+ */
+public class IncrementalSession {
+    private final FeedforwardNetwork network;
+
+    private final FeedforwardLayer first;
+
+    private final int refreshInterval;
+
+    // The input the sums belong to
+    private final double[] input;
+
+    // The weighted sums of the first hidden layer
+    private double[] sums;
+
+    // The matrix the sums were computed with, learn() and reset() replace it
+    private Matrix matrix;
+
+    // Its modification count at that time, Matrix.set changes it in place
+    private int matrixModCount;
+
+    private int updatesSinceRefresh;
+
+    /**
+     * @param network         the network to evaluate
+     * @param refreshInterval how many incremental updates between two full
+     *                        recomputations of the sums
+     */
+    public IncrementalSession(FeedforwardNetwork network, int refreshInterval) {
+        if (refreshInterval < 1) {
+            throw new IllegalArgumentException("Refresh interval must be at least 1 but got " + refreshInterval);
+        }
+        this.network = network;
+        this.first = network.getLayers().get(0);
+        this.refreshInterval = refreshInterval;
+        this.input = new double[first.getNeuronCount()];
+    }
+
+    /**
+     * Compute the output for a full input, only the positions that differ
+     * from the last input are applied incrementally.
+     *
+     * @param pattern the input
+     * @return output vector
+     */
+    public double[] computeOutputs(double[] pattern) {
+        checkLength(pattern);
+        if (needsRefresh()) {
+            return refresh(pattern);
+        }
+
+        int changed = 0;
+        for (int i = 0; i < pattern.length; i++) {
+            if (pattern[i] != input[i]) {
+                changed++;
+            }
+        }
+        // past half the inputs a full pass is cheaper
+        if (changed * 2 > pattern.length) {
+            return refresh(pattern);
+        }
+
+        for (int i = 0; i < pattern.length; i++) {
+            if (pattern[i] != input[i]) {
+                apply(i, pattern[i]);
+            }
+        }
+        return computeDeeperOutputs(changed);
+    }
+
+    /**
+     * Compute the output after changing a few positions of the last input.
+     *
+     * @param positions the changed positions
+     * @param values    the new values of those positions
+     * @return output vector
+     */
+    public double[] update(int[] positions, double[] values) {
+        if (positions.length != values.length) {
+            throw new IllegalArgumentException("Got " + positions.length + " positions but "
+                    + values.length + " values");
+        }
+        for (final int position : positions) {
+            if (position < 0 || position >= input.length) {
+                throw new IllegalArgumentException("Position " + position
+                        + " is outside the input layer of " + input.length + " neurons");
+            }
+        }
+        if (needsRefresh()) {
+            final double[] pattern = input.clone();
+            for (int i = 0; i < positions.length; i++) {
+                pattern[positions[i]] = values[i];
+            }
+            return refresh(pattern);
+        }
+
+        for (int i = 0; i < positions.length; i++) {
+            apply(positions[i], values[i]);
+        }
+        return computeDeeperOutputs(positions.length);
+    }
+
+    /**
+     * Forget the kept sums, the next call recomputes them from scratch.
+     */
+    public void invalidate() {
+        sums = null;
+    }
+
+    private boolean needsRefresh() {
+        return sums == null || matrix != first.getMatrix() || matrixModCount != matrix.getModCount()
+                || updatesSinceRefresh >= refreshInterval;
+    }
+
+    private void checkLength(double[] pattern) {
+        if (pattern.length != input.length) {
+            throw new IllegalArgumentException("Input has " + pattern.length
+                    + " values but the input layer has " + input.length + " neurons");
+        }
+    }
+
+    private double[] refresh(double[] pattern) {
+        System.arraycopy(pattern, 0, input, 0, input.length);
+        matrix = first.getMatrix();
+        matrixModCount = matrix.getModCount();
+        sums = first.createSums();
+        first.addToSums(input, 0, sums);
+        updatesSinceRefresh = 0;
+        first.activate(sums);
+        return network.computeDeeperOutputs();
+    }
+
+    private void apply(int position, double value) {
+        first.addDeltaToSums(position, value - input[position], sums);
+        input[position] = value;
+    }
+
+    private double[] computeDeeperOutputs(int changed) {
+        if (changed > 0) {
+            updatesSinceRefresh++;
+        }
+        // the network may have been used for other inputs in between
+        for (int i = 0; i < input.length; i++) {
+            first.setValue(i, input[i]);
+        }
+        first.activate(sums);
+        return network.computeDeeperOutputs();
+    }
+}
@@ -0,0 +1,127 @@
+import activation.ActivationFunction;
+import math.Matrix;
+
+import java.util.List;
+
+/**
+ * InterpretedNetwork: the fallback of NetworkCompiler. The same passes as
+ * the generated class, written as loops over the network's current
+ * matrices, with the same summation order as FeedforwardLayer and
+ * BackPropagationLayer.
+ */
+class InterpretedNetwork implements CompiledNetwork {
+    private final FeedforwardLayer[] layers;
+
+    private final ActivationFunction[] activationFunctions;
+
+    private final int weightCount;
+
+    private final String fallbackReason;
+
+    /**
+     * @param network        the network
+     * @param fallbackReason why the network wasn't compiled
+     */
+    InterpretedNetwork(FeedforwardNetwork network, String fallbackReason) {
+        final List<FeedforwardLayer> list = network.getLayers();
+        this.layers = list.toArray(new FeedforwardLayer[0]);
+        this.activationFunctions = new ActivationFunction[layers.length];
+        for (int i = 0; i < layers.length; i++) {
+            activationFunctions[i] = layers[i].getActivationFunction();
+        }
+        this.weightCount = network.getWeightCount();
+        this.fallbackReason = fallbackReason;
+    }
+
+    @Override
+    public double[] computeOutputs(double[] input) {
+        final double[][] values = forward(input, matrices());
+        return values[values.length - 1];
+    }
+
+    @Override
+    public double[] calcError(double[] input, double[] expected, double[] gradient) {
+        final Matrix[] matrices = matrices();
+        final double[][] values = forward(input, matrices);
+        final int output = layers.length - 1;
+        if (expected.length != layers[output].getNeuronCount()) {
+            throw new IllegalArgumentException("Expected " + layers[output].getNeuronCount()
+                    + " outputs but got " + expected.length);
+        }
+        if (gradient.length != weightCount) {
+            throw new IllegalArgumentException("Expected a gradient of " + weightCount
+                    + " weights but got " + gradient.length);
+        }
+
+        double[] delta = new double[expected.length];
+        for (int i = 0; i < delta.length; i++) {
+            final double value = values[output][i];
+            delta[i] = (expected[i] - value) * activationFunctions[output].derivative(value);
+        }
+
+        int offset = weightCount;
+        for (int l = output - 1; l >= 0; l--) {
+            final Matrix matrix = matrices[l];
+            final int cols = matrix.getCols();
+            final int bias = matrix.getRows() - 1;
+            offset -= matrix.getRows() * cols;
+
+            final double[] error = new double[bias];
+            for (int i = 0; i < cols; i++) {
+                for (int j = 0; j < bias; j++) {
+                    gradient[offset + j * cols + i] += delta[i] * values[l][j];
+                    error[j] = error[j] + matrix.get(j, i) * delta[i];
+                }
+                gradient[offset + bias * cols + i] += delta[i];
+            }
+
+            // the input layer has no delta of its own
+            if (l > 0) {
+                for (int j = 0; j < bias; j++) {
+                    error[j] = error[j] * activationFunctions[l].derivative(values[l][j]);
+                }
+            }
+            delta = error;
+        }
+        return values[output];
+    }
+
+    @Override
+    public String getFallbackReason() {
+        return fallbackReason;
+    }
+
+    private Matrix[] matrices() {
+        final Matrix[] matrices = new Matrix[layers.length - 1];
+        for (int i = 0; i < matrices.length; i++) {
+            matrices[i] = layers[i].getMatrix();
+        }
+        return matrices;
+    }
+
+    /**
+     * @return the values of every layer, starting with the input.
+     */
+    private double[][] forward(double[] input, Matrix[] matrices) {
+        if (input.length != layers[0].getNeuronCount()) {
+            throw new IllegalArgumentException("Input has " + input.length
+                    + " values but the network takes " + layers[0].getNeuronCount());
+        }
+        final double[][] values = new double[layers.length][];
+        values[0] = input;
+        for (int l = 0; l < matrices.length; l++) {
+            final Matrix matrix = matrices[l];
+            final int bias = matrix.getRows() - 1;
+            values[l + 1] = new double[matrix.getCols()];
+            for (int c = 0; c < matrix.getCols(); c++) {
+                double sum = 0;
+                for (int r = 0; r < bias; r++) {
+                    sum += values[l][r] * matrix.get(r, c);
+                }
+                sum += matrix.get(bias, c);
+                values[l + 1][c] = activationFunctions[l].activation(sum);
+            }
+        }
+        return values;
+    }
+}
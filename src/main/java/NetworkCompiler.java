@@ -0,0 +1,272 @@
+import activation.ActivationFunction;
+import activation.ActivationSigmoid;
+
+import javax.tools.Diagnostic;
+import javax.tools.DiagnosticCollector;
+import javax.tools.FileObject;
+import javax.tools.ForwardingJavaFileManager;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileManager;
+import javax.tools.JavaFileObject;
+import javax.tools.SimpleJavaFileObject;
+import javax.tools.ToolProvider;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.invoke.MethodHandles;
+import java.net.URI;
+import java.util.List;
+
+/**
+ * NetworkCompiler: generates the forward pass and the calcError backward
+ * pass specialised for the topology of one FeedforwardNetwork. The
+ * generated source has every loop unrolled, the dimensions and gradient
+ * offsets as constants and the sigmoid and its derivative inlined. The
+ * weights are read from the layers' current matrices on every call, so
+ * training the network doesn't need a recompile.
+ *
+ * The source is compiled in-process and defined as a hidden class. If no
+ * compiler is available, the network is too big to unroll or the source
+ * doesn't compile, an InterpretedNetwork is returned instead;
+ * CompiledNetwork.getFallbackReason tells why.
+ */
+public class NetworkCompiler {
+    /**
+     * Networks with more weights than this are not unrolled. HotSpot doesn't
+     * JIT methods over 8000 bytes of bytecode, and calcError takes about 30
+     * bytes per weight.
+     */
+    static final int MAX_WEIGHTS = 200;
+
+    private static final String CLASS_NAME = "GeneratedNetwork";
+
+    /**
+     * Compile the network, falling back to the interpreted passes if needed.
+     *
+     * @param network the network to compile
+     * @return the passes over the network's weights
+     */
+    public static CompiledNetwork compile(FeedforwardNetwork network) {
+        if (network.getWeightCount() > MAX_WEIGHTS) {
+            return new InterpretedNetwork(network, network.getWeightCount()
+                    + " weights are too many to unroll");
+        }
+        try {
+            return define(generate(network), network);
+        } catch (Exception | LinkageError e) {
+            return new InterpretedNetwork(network, e.toString());
+        }
+    }
+
+    /**
+     * Generate the source of the specialised passes.
+     */
+    static String generate(FeedforwardNetwork network) {
+        final List<FeedforwardLayer> layers = network.getLayers();
+        final int output = layers.size() - 1;
+        final int outputs = layers.get(output).getNeuronCount();
+
+        final StringBuilder source = new StringBuilder();
+        source.append("public final class ").append(CLASS_NAME).append(" implements CompiledNetwork {\n");
+        source.append("    private final FeedforwardLayer[] l;\n");
+        source.append("    private final activation.ActivationFunction[] a;\n");
+        source.append("    public ").append(CLASS_NAME)
+                .append("(FeedforwardLayer[] l, activation.ActivationFunction[] a) {\n");
+        source.append("        this.l = l;\n");
+        source.append("        this.a = a;\n");
+        source.append("    }\n");
+        source.append("    public boolean isCompiled() {\n");
+        source.append("        return true;\n");
+        source.append("    }\n");
+
+        source.append("    public double[] computeOutputs(double[] in) {\n");
+        forward(source, layers);
+        returnOutputs(source, output, outputs);
+        source.append("    }\n");
+
+        source.append("    public double[] calcError(double[] in, double[] ideal, double[] g) {\n");
+        source.append("        if (ideal.length != ").append(outputs).append(") {\n");
+        source.append("            throw new IllegalArgumentException(\"Expected ").append(outputs)
+                .append(" outputs but got \" + ideal.length);\n");
+        source.append("        }\n");
+        source.append("        if (g.length != ").append(network.getWeightCount()).append(") {\n");
+        source.append("            throw new IllegalArgumentException(\"Expected a gradient of ")
+                .append(network.getWeightCount()).append(" weights but got \" + g.length);\n");
+        source.append("        }\n");
+        forward(source, layers);
+        backward(source, layers, network.getWeightCount());
+        returnOutputs(source, output, outputs);
+        source.append("    }\n");
+        source.append("}\n");
+        return source.toString();
+    }
+
+    /**
+     * Declare v{layer}_{neuron} for the value of every neuron, same
+     * summation order as FeedforwardLayer: inputs, then bias.
+     */
+    private static void forward(StringBuilder source, List<FeedforwardLayer> layers) {
+        final int inputs = layers.get(0).getNeuronCount();
+        source.append("        if (in.length != ").append(inputs).append(") {\n");
+        source.append("            throw new IllegalArgumentException(\"Input has \" + in.length + \" values but the network takes ")
+                .append(inputs).append("\");\n");
+        source.append("        }\n");
+        for (int l = 0; l < layers.size() - 1; l++) {
+            source.append("        final math.Matrix m").append(l).append(" = l[").append(l).append("].getMatrix();\n");
+        }
+        for (int i = 0; i < inputs; i++) {
+            source.append("        final double v0_").append(i).append(" = in[").append(i).append("];\n");
+        }
+        for (int l = 0; l < layers.size() - 1; l++) {
+            final int bias = layers.get(l).getNeuronCount();
+            for (int c = 0; c < layers.get(l + 1).getNeuronCount(); c++) {
+                final StringBuilder sum = new StringBuilder();
+                for (int r = 0; r < bias; r++) {
+                    sum.append('v').append(l).append('_').append(r)
+                            .append(" * ").append(weight(l, r, c)).append(" + ");
+                }
+                sum.append(weight(l, bias, c));
+                source.append("        final double v").append(l + 1).append('_').append(c).append(" = ")
+                        .append(activation(layers.get(l), l, sum.toString())).append(";\n");
+            }
+        }
+    }
+
+    /**
+     * Declare d{layer}_{neuron} for the error delta of every layer but the
+     * input and add the weight deltas to g, same order as
+     * BackPropagationLayer.calcError.
+     */
+    private static void backward(StringBuilder source, List<FeedforwardLayer> layers, int weightCount) {
+        final int output = layers.size() - 1;
+        for (int i = 0; i < layers.get(output).getNeuronCount(); i++) {
+            final String value = "v" + output + "_" + i;
+            source.append("        final double d").append(output).append('_').append(i)
+                    .append(" = (ideal[").append(i).append("] - ").append(value).append(") * ")
+                    .append(derivative(layers.get(output), output, value)).append(";\n");
+        }
+
+        int offset = weightCount;
+        for (int l = output - 1; l >= 0; l--) {
+            final int bias = layers.get(l).getNeuronCount();
+            final int cols = layers.get(l + 1).getNeuronCount();
+            offset -= (bias + 1) * cols;
+            for (int i = 0; i < cols; i++) {
+                final String delta = "d" + (l + 1) + "_" + i;
+                for (int j = 0; j < bias; j++) {
+                    source.append("        g[").append(offset + j * cols + i).append("] += ")
+                            .append(delta).append(" * v").append(l).append('_').append(j).append(";\n");
+                }
+                source.append("        g[").append(offset + bias * cols + i).append("] += ")
+                        .append(delta).append(";\n");
+            }
+
+            // the input layer has no delta of its own
+            if (l == 0) {
+                continue;
+            }
+            for (int j = 0; j < bias; j++) {
+                final StringBuilder error = new StringBuilder();
+                for (int i = 0; i < cols; i++) {
+                    error.append(i == 0 ? "" : " + ").append(weight(l, j, i))
+                            .append(" * d").append(l + 1).append('_').append(i);
+                }
+                final String value = "v" + l + "_" + j;
+                source.append("        final double d").append(l).append('_').append(j)
+                        .append(" = (").append(error).append(") * ")
+                        .append(derivative(layers.get(l), l, value)).append(";\n");
+            }
+        }
+    }
+
+    private static void returnOutputs(StringBuilder source, int output, int outputs) {
+        source.append("        return new double[]{");
+        for (int i = 0; i < outputs; i++) {
+            source.append(i == 0 ? "" : ", ").append('v').append(output).append('_').append(i);
+        }
+        source.append("};\n");
+    }
+
+    private static String weight(int layer, int row, int col) {
+        return "m" + layer + ".get(" + row + ", " + col + ")";
+    }
+
+    private static boolean isSigmoid(FeedforwardLayer layer) {
+        return layer.getActivationFunction().getClass() == ActivationSigmoid.class;
+    }
+
+    private static String activation(FeedforwardLayer layer, int index, String sum) {
+        if (isSigmoid(layer)) {
+            return "1.0 / (1 + Math.exp(-1.0 * (" + sum + ")))";
+        }
+        return "a[" + index + "].activation(" + sum + ")";
+    }
+
+    private static String derivative(FeedforwardLayer layer, int index, String value) {
+        if (isSigmoid(layer)) {
+            return value + " * (1 - " + value + ")";
+        }
+        return "a[" + index + "].derivative(" + value + ")";
+    }
+
+    /**
+     * Compile the source in memory and define it as a hidden class.
+     *
+     * @return the compiled pass.
+     * @throws IllegalStateException if there is no compiler or the source
+     *                               doesn't compile.
+     */
+    private static CompiledNetwork define(String source, FeedforwardNetwork network)
+            throws IOException, ReflectiveOperationException {
+        final JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        if (compiler == null) {
+            throw new IllegalStateException("no system Java compiler, running on a JRE");
+        }
+
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        final JavaFileObject sourceFile = new SimpleJavaFileObject(
+                URI.create("string:///" + CLASS_NAME + ".java"), JavaFileObject.Kind.SOURCE) {
+            @Override
+            public CharSequence getCharContent(boolean ignoreEncodingErrors) {
+                return source;
+            }
+        };
+        final JavaFileManager fileManager = new ForwardingJavaFileManager<>(
+                compiler.getStandardFileManager(null, null, null)) {
+            @Override
+            public JavaFileObject getJavaFileForOutput(Location location, String className,
+                                                       JavaFileObject.Kind kind, FileObject sibling) {
+                return new SimpleJavaFileObject(URI.create("bytes:///" + className + ".class"), kind) {
+                    @Override
+                    public OutputStream openOutputStream() {
+                        return bytes;
+                    }
+                };
+            }
+        };
+
+        final List<String> options = List.of("-classpath", System.getProperty("java.class.path"), "-g:none");
+        final DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
+        try (fileManager) {
+            if (!compiler.getTask(null, fileManager, diagnostics, options, null,
+                    List.of(sourceFile)).call()) {
+                final StringBuilder errors = new StringBuilder("generated source doesn't compile:");
+                for (Diagnostic<? extends JavaFileObject> diagnostic : diagnostics.getDiagnostics()) {
+                    errors.append(' ').append(diagnostic.getMessage(null));
+                }
+                throw new IllegalStateException(errors.toString());
+            }
+        }
+
+        final Class<?> hiddenClass = MethodHandles.lookup()
+                .defineHiddenClass(bytes.toByteArray(), true)
+                .lookupClass();
+        final List<FeedforwardLayer> layers = network.getLayers();
+        final ActivationFunction[] activations = new ActivationFunction[layers.size()];
+        for (int i = 0; i < activations.length; i++) {
+            activations[i] = layers.get(i).getActivationFunction();
+        }
+        return (CompiledNetwork) hiddenClass.getConstructor(FeedforwardLayer[].class, ActivationFunction[].class)
+                .newInstance(layers.toArray(new FeedforwardLayer[0]), activations);
+    }
+}
@@ -0,0 +1,166 @@
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+
+/**
+ * ParameterServer: owns the master weights of a FeedforwardNetwork and
+ * serves them to ParameterWorker processes over NIO sockets.
+ *
+ * Workers push weight deltas, which are added to the master weights, and
+ * pull the current weights together with their version. Every push bumps
+ * the version by one.
+ *
+ * Every request starts with a one byte op code followed by an int count:
+ * PUSH carries count floats and is answered with the new version,
+ * PULL carries nothing and is answered with the version, the weight count
+ * and the weights as doubles. BYE closes the connection. A request with an
+ * unknown op code or a count that doesn't match the network closes the
+ * connection as well.
+ */
+public class ParameterServer implements Runnable {
+    static final byte PUSH = 1;
+
+    static final byte PULL = 2;
+
+    static final byte BYE = 3;
+
+    private final FeedforwardNetwork network;
+
+    private final ServerSocketChannel serverChannel;
+
+    // The topology never changes, so neither does the number of weights
+    private final int weightCount;
+
+    private long version;
+
+    /**
+     * Construct a server for the network on a localhost port.
+     *
+     * @param network the network that holds the master weights
+     * @param port    the port to listen on, zero picks a free one
+     * @throws IOException if the port can't be bound
+     */
+    public ParameterServer(FeedforwardNetwork network, int port) throws IOException {
+        this.network = network;
+        this.weightCount = network.getWeightCount();
+        this.serverChannel = ServerSocketChannel.open();
+        this.serverChannel.bind(new InetSocketAddress("localhost", port));
+    }
+
+    /**
+     * @return the port the server listens on.
+     */
+    public int getPort() throws IOException {
+        return ((InetSocketAddress) serverChannel.getLocalAddress()).getPort();
+    }
+
+    /**
+     * @return how many deltas have been applied so far.
+     */
+    public synchronized long getVersion() {
+        return version;
+    }
+
+    /**
+     * Accept workers until the server is closed, serving each one on its own
+     * thread.
+     */
+    @Override
+    public void run() {
+        while (serverChannel.isOpen()) {
+            try {
+                final SocketChannel channel = serverChannel.accept();
+                final Thread thread = new Thread(() -> serve(channel), "parameter-server-worker");
+                thread.setDaemon(true);
+                thread.start();
+            } catch (IOException e) {
+                // closed while waiting for a worker
+                return;
+            }
+        }
+    }
+
+    public void close() throws IOException {
+        serverChannel.close();
+    }
+
+    private void serve(SocketChannel channel) {
+        final ByteBuffer header = ByteBuffer.allocate(5);
+        try (channel) {
+            while (true) {
+                header.clear();
+                readFully(channel, header);
+                final byte op = header.get();
+                final int count = header.getInt();
+
+                if (op == BYE) {
+                    return;
+                } else if (op == PUSH && count == weightCount) {
+                    final ByteBuffer payload = ByteBuffer.allocate(count * Float.BYTES);
+                    readFully(channel, payload);
+                    final double[] delta = new double[count];
+                    for (int i = 0; i < count; i++) {
+                        delta[i] = payload.getFloat();
+                    }
+                    final ByteBuffer reply = ByteBuffer.allocate(Long.BYTES);
+                    reply.putLong(apply(delta)).flip();
+                    writeFully(channel, reply);
+                } else if (op == PULL && count == 0) {
+                    final double[] weights;
+                    final long current;
+                    synchronized (this) {
+                        weights = network.getWeights();
+                        current = version;
+                    }
+                    final ByteBuffer reply = ByteBuffer.allocate(Long.BYTES + Integer.BYTES
+                            + weights.length * Double.BYTES);
+                    reply.putLong(current).putInt(weights.length);
+                    for (double weight : weights) {
+                        reply.putDouble(weight);
+                    }
+                    reply.flip();
+                    writeFully(channel, reply);
+                } else {
+                    System.err.println("Closing " + channel.getRemoteAddress()
+                            + ": bad request, op " + op + " with count " + count);
+                    return;
+                }
+            }
+        } catch (IOException e) {
+            // the worker went away, nothing to clean up but the channel
+        }
+    }
+
+    /**
+     * Add a delta to the master weights.
+     *
+     * @param delta the delta, laid out like FeedforwardNetwork.getWeights
+     * @return the version after the delta was applied
+     */
+    private synchronized long apply(double[] delta) {
+        final double[] weights = network.getWeights();
+        for (int i = 0; i < weights.length; i++) {
+            weights[i] += delta[i];
+        }
+        network.setWeights(weights);
+        return ++version;
+    }
+
+    static void readFully(SocketChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer) < 0) {
+                throw new EOFException("Connection closed");
+            }
+        }
+        buffer.flip();
+    }
+
+    static void writeFully(SocketChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+}
@@ -0,0 +1,121 @@
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+
+/**
+ * ParameterWorker: trains a local copy of the network on its own shard of
+ * the data and keeps it in sync with a ParameterServer.
+ *
+ * After every epoch the worker pushes the change of its weights since the
+ * last sync, compressed to floats. Its own pushes are already in its local
+ * weights, so it only pulls fresh weights once the server has applied more
+ * than maxStaleness pushes from other workers since its last pull.
+ */
+public class ParameterWorker implements Closeable {
+    private final FeedforwardNetwork network;
+
+    private final BackPropagation backPropagation;
+
+    private final SocketChannel channel;
+
+    private final int maxStaleness;
+
+    // The weights as of the last push or pull, deltas are taken against these
+    private double[] base;
+
+    // The server version of the last pull
+    private long pulledVersion;
+
+    // How many of the versions since the last pull are our own pushes
+    private long pushesSincePull;
+
+    public ParameterWorker(String host, int port, int maxStaleness, double learningRate,
+                           double momentum, double[][] input, double[][] expected,
+                           FeedforwardNetwork network) throws IOException {
+        this.network = network;
+        this.maxStaleness = maxStaleness;
+        this.backPropagation = new BackPropagation(learningRate, momentum, input, expected, network);
+        this.channel = SocketChannel.open(new InetSocketAddress(host, port));
+        try {
+            pull();
+        } catch (IOException | RuntimeException e) {
+            try {
+                channel.close();
+            } catch (IOException suppressed) {
+                e.addSuppressed(suppressed);
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Train one epoch on the shard and sync with the server.
+     *
+     * @return the error of the shard for this epoch
+     */
+    public double train() throws IOException {
+        final double error = backPropagation.train();
+
+        final double[] weights = network.getWeights();
+        final long version = push(weights);
+        pushesSincePull++;
+        if (version - pulledVersion - pushesSincePull > maxStaleness) {
+            pull();
+        } else {
+            base = weights;
+        }
+        return error;
+    }
+
+    private long push(double[] weights) throws IOException {
+        final ByteBuffer request = ByteBuffer.allocate(5 + weights.length * Float.BYTES);
+        request.put(ParameterServer.PUSH).putInt(weights.length);
+        for (int i = 0; i < weights.length; i++) {
+            request.putFloat((float) (weights[i] - base[i]));
+        }
+        request.flip();
+        ParameterServer.writeFully(channel, request);
+
+        final ByteBuffer reply = ByteBuffer.allocate(Long.BYTES);
+        ParameterServer.readFully(channel, reply);
+        return reply.getLong();
+    }
+
+    private void pull() throws IOException {
+        final ByteBuffer request = ByteBuffer.allocate(5);
+        request.put(ParameterServer.PULL).putInt(0).flip();
+        ParameterServer.writeFully(channel, request);
+
+        final ByteBuffer header = ByteBuffer.allocate(Long.BYTES + Integer.BYTES);
+        ParameterServer.readFully(channel, header);
+        pulledVersion = header.getLong();
+        final int count = header.getInt();
+        if (count != network.getWeightCount()) {
+            throw new IOException("Server sent " + count + " weights but the network has "
+                    + network.getWeightCount());
+        }
+        final ByteBuffer payload = ByteBuffer.allocate(count * Double.BYTES);
+        ParameterServer.readFully(channel, payload);
+
+        final double[] weights = new double[payload.capacity() / Double.BYTES];
+        for (int i = 0; i < weights.length; i++) {
+            weights[i] = payload.getDouble();
+        }
+        network.setWeights(weights);
+        base = weights;
+        pushesSincePull = 0;
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            final ByteBuffer request = ByteBuffer.allocate(5);
+            request.put(ParameterServer.BYE).putInt(0).flip();
+            ParameterServer.writeFully(channel, request);
+        } finally {
+            channel.close();
+        }
+    }
+}
@@ -0,0 +1,69 @@
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+
+/**
+ * Score: headless entry point that loads a saved network and scores a CSV
+ * file of inputs, one comma separated input per line, printing one comma
+ * separated output per line.
+ *
+ * Only the core network classes and the math and activation packages are
+ * loaded, so it starts fast and can be put in an AppCDS archive or built
+ * as a native image (see the appcds and native profiles in the pom).
+ *
+ * Usage: Score model inputs.csv, with - reading the inputs from stdin.
+ */
+public class Score {
+    public static void main(String[] args) throws IOException {
+        if (args.length != 2) {
+            System.err.println("Usage: Score <model> <inputs.csv|->");
+            System.exit(2);
+        }
+
+        final FeedforwardNetwork network = FeedforwardNetwork.load(new File(args[0]));
+        final int inputCount = network.getLayers().get(0).getNeuronCount();
+        final double[] input = new double[inputCount];
+
+        final Reader source = args[1].equals("-")
+                ? new InputStreamReader(System.in)
+                : new FileReader(args[1]);
+        try (BufferedReader reader = new BufferedReader(source);
+             BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(System.out))) {
+            String line;
+            int lineNumber = 0;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                if (line.isBlank()) {
+                    continue;
+                }
+                final String[] values = line.split(",");
+                if (values.length != inputCount) {
+                    throw new IOException("Line " + lineNumber + " has " + values.length
+                            + " values but the network takes " + inputCount);
+                }
+                for (int i = 0; i < inputCount; i++) {
+                    try {
+                        input[i] = Double.parseDouble(values[i].trim());
+                    } catch (NumberFormatException e) {
+                        throw new IOException("Line " + lineNumber + " value " + (i + 1)
+                                + " is not a number: " + values[i].trim(), e);
+                    }
+                }
+
+                final double[] output = network.computeOutputs(input);
+                for (int i = 0; i < output.length; i++) {
+                    if (i > 0) {
+                        writer.write(',');
+                    }
+                    writer.write(Double.toString(output[i]));
+                }
+                writer.newLine();
+            }
+        }
+    }
+}
@@ -0,0 +1,395 @@
+import org.jfree.data.xy.XYSeries;
+
+import javax.swing.*;
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * TrainingCurve: records (epoch, error) points for plotting without slowing
+ * down the training loop.
+ *
+ * The training thread folds every bucketSize points into their min and max
+ * point, which is O(1) per point, and writes each finished pair into a fixed
+ * size primitive ring buffer. A daemon thread drains the ring, keeps at most
+ * maxPoints points by merging neighbouring pairs, and publishes them to an
+ * XYSeries on the Swing thread. Every merge doubles bucketSize, so the ring
+ * traffic shrinks as the run grows.
+ *
+ * The trainer never blocks and never throws a point away. While the ring is
+ * full, finished pairs go into a spill buffer of the same size on the
+ * training thread; when that fills up too, its neighbouring pairs are
+ * merged and the trainer folds twice as many points per pair, so a lagging
+ * drain thread costs resolution, not the shape of the run. close flushes
+ * the spill, the bucket being filled and the latest point.
+ */
+public class TrainingCurve implements AutoCloseable {
+    /**
+     * The ring between the training thread and the drain thread, in pairs.
+     * The capacity is a power of two so the index is just a mask.
+     */
+    private static final int RING_CAPACITY = 1 << 10;
+
+    /**
+     * How long the drain thread sleeps between two drains, in milliseconds.
+     */
+    private static final long DRAIN_INTERVAL = 100;
+
+    // Every ring slot holds one pair: minX, minY, maxX, maxY
+    private final double[] ring = new double[RING_CAPACITY * 4];
+
+    // Only written by the training thread
+    private volatile long head;
+
+    // Only written by the drain thread
+    private volatile long tail;
+
+    // Set by the trainer when it woke the drain thread, cleared on drain
+    private volatile boolean woken;
+
+    private volatile boolean closed;
+
+    // How many raw points the trainer folds into one pair, only grows
+    private volatile int bucketSize = 2;
+
+    // The bucket being filled, only touched by the training thread
+    private int pendingCount;
+
+    // Finished pairs the ring had no room for, only touched by the training thread
+    private final double[] spill = new double[RING_CAPACITY * 4];
+
+    private int spillCount;
+
+    // The bucket size is shifted left by this while pairs are spilled
+    private int spillShift;
+
+    private double minX, minY, maxX, maxY, lastX, lastY;
+
+    // The decimated points, only touched while holding the lock on this
+    private final double[] xs;
+
+    private final double[] ys;
+
+    private int count;
+
+    private final XYSeries series;
+
+    private final Thread drainThread;
+
+    /**
+     * @param name      the name of the series
+     * @param maxPoints how many points to keep at most, rounded down to a
+     *                  multiple of 4 so the store always merges whole pairs
+     */
+    public TrainingCurve(String name, int maxPoints) {
+        if (maxPoints < 4) {
+            throw new IllegalArgumentException("Need at least 4 points but got " + maxPoints);
+        }
+        this.xs = new double[maxPoints & ~3];
+        this.ys = new double[maxPoints & ~3];
+        this.series = new XYSeries(name, false, true);
+        this.drainThread = new Thread(this::drainLoop, "training-curve");
+        this.drainThread.setDaemon(true);
+        this.drainThread.start();
+    }
+
+    /**
+     * Record a point. Called from the training thread, never blocks.
+     *
+     * @param x the epoch
+     * @param y the error
+     */
+    public void record(double x, double y) {
+        if (pendingCount == 0 || y < minY) {
+            minX = x;
+            minY = y;
+        }
+        if (pendingCount == 0 || y > maxY) {
+            maxX = x;
+            maxY = y;
+        }
+        lastX = x;
+        lastY = y;
+        if (++pendingCount < bucketSize << spillShift) {
+            return;
+        }
+        pendingCount = 0;
+        if (!flushSpill() || !offer(minX, minY, maxX, maxY)) {
+            spill(minX, minY, maxX, maxY);
+        }
+    }
+
+    /**
+     * @return the series that is kept up to date on the Swing thread.
+     */
+    public XYSeries getSeries() {
+        return series;
+    }
+
+    /**
+     * Flush the bucket being filled and the latest point, then stop the
+     * drain thread after it has drained everything. Must be called from the
+     * training thread.
+     */
+    @Override
+    public void close() {
+        while (!flushSpill()) {
+            Thread.yield();
+        }
+        if (pendingCount > 0) {
+            put(minX, minY, maxX, maxY);
+            if ((lastX != minX || lastY != minY) && (lastX != maxX || lastY != maxY)) {
+                put(lastX, lastY, lastX, lastY);
+            }
+            pendingCount = 0;
+        }
+        closed = true;
+        LockSupport.unpark(drainThread);
+        try {
+            drainThread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Write the decimated points as "x,y" lines.
+     *
+     * @param file the file to write
+     */
+    public void exportCSV(File file) throws IOException {
+        final double[][] points = snapshot();
+        try (PrintWriter writer = new PrintWriter(file)) {
+            writer.println("epoch,error");
+            for (int i = 0; i < points[0].length; i++) {
+                writer.println(points[0][i] + "," + points[1][i]);
+            }
+        }
+    }
+
+    /**
+     * Render the decimated points into a PNG file, no display needed.
+     *
+     * @param file   the file to write
+     * @param width  the width of the image
+     * @param height the height of the image
+     */
+    public void exportPNG(File file, int width, int height) throws IOException {
+        final double[][] points = snapshot();
+        final XYSeries copy = new XYSeries(series.getKey(), false, true);
+        for (int i = 0; i < points[0].length; i++) {
+            copy.add(points[0][i], points[1][i], false);
+        }
+        Draw.saveAsPNG(copy, file, width, height);
+    }
+
+    /**
+     * Write a pair into the ring, waking the drain thread once the ring is
+     * half full.
+     *
+     * @return false if the ring is full.
+     */
+    private boolean offer(double x1, double y1, double x2, double y2) {
+        final long h = head;
+        final long used = h - tail;
+        if (used >= RING_CAPACITY) {
+            wake();
+            return false;
+        }
+        final int i = (int) (h & (RING_CAPACITY - 1)) * 4;
+        ring[i] = x1;
+        ring[i + 1] = y1;
+        ring[i + 2] = x2;
+        ring[i + 3] = y2;
+        head = h + 1;
+        if (used + 1 >= RING_CAPACITY / 2) {
+            wake();
+        }
+        return true;
+    }
+
+    /**
+     * Move the spilled pairs into the ring, oldest first.
+     *
+     * @return true if the spill is empty afterwards.
+     */
+    private boolean flushSpill() {
+        int moved = 0;
+        while (moved < spillCount) {
+            final int i = moved * 4;
+            if (!offer(spill[i], spill[i + 1], spill[i + 2], spill[i + 3])) {
+                break;
+            }
+            moved++;
+        }
+        if (moved == 0) {
+            return spillCount == 0;
+        }
+        spillCount -= moved;
+        System.arraycopy(spill, moved * 4, spill, 0, spillCount * 4);
+        if (spillCount == 0) {
+            spillShift = 0;
+        }
+        return spillCount == 0;
+    }
+
+    /**
+     * Keep a pair the ring had no room for. A full spill is halved by
+     * merging neighbouring pairs, and from then on the trainer folds twice
+     * as many points per pair so every spilled pair covers the same span.
+     */
+    private void spill(double x1, double y1, double x2, double y2) {
+        if (spillCount == RING_CAPACITY) {
+            for (int i = 0; i < spillCount; i += 2) {
+                final int a = i * 4;
+                final int b = a + 4;
+                final int n = i * 2;
+                if (spill[b + 1] < spill[a + 1]) {
+                    spill[n] = spill[b];
+                    spill[n + 1] = spill[b + 1];
+                } else {
+                    spill[n] = spill[a];
+                    spill[n + 1] = spill[a + 1];
+                }
+                if (spill[b + 3] > spill[a + 3]) {
+                    spill[n + 2] = spill[b + 2];
+                    spill[n + 3] = spill[b + 3];
+                } else {
+                    spill[n + 2] = spill[a + 2];
+                    spill[n + 3] = spill[a + 3];
+                }
+            }
+            spillCount /= 2;
+            spillShift++;
+        }
+        final int i = spillCount * 4;
+        spill[i] = x1;
+        spill[i + 1] = y1;
+        spill[i + 2] = x2;
+        spill[i + 3] = y2;
+        spillCount++;
+    }
+
+    /**
+     * Write a pair into the ring, waiting for room. Only used by close.
+     */
+    private void put(double x1, double y1, double x2, double y2) {
+        while (!offer(x1, y1, x2, y2)) {
+            Thread.yield();
+        }
+    }
+
+    private void wake() {
+        if (!woken) {
+            woken = true;
+            LockSupport.unpark(drainThread);
+        }
+    }
+
+    private void drainLoop() {
+        while (true) {
+            final boolean last = closed;
+            if (drain()) {
+                publish();
+            }
+            if (last) {
+                return;
+            }
+            LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(DRAIN_INTERVAL));
+        }
+    }
+
+    /**
+     * Move every pair from the ring into the store.
+     *
+     * @return true if any pair was moved.
+     */
+    private synchronized boolean drain() {
+        woken = false;
+        final long h = head;
+        long t = tail;
+        if (t == h) {
+            return false;
+        }
+        for (; t < h; t++) {
+            final int i = (int) (t & (RING_CAPACITY - 1)) * 4;
+            add(ring[i], ring[i + 1], ring[i + 2], ring[i + 3]);
+        }
+        tail = t;
+        return true;
+    }
+
+    /**
+     * Store a min/max pair, merging the store first if it is full.
+     */
+    private void add(double x1, double y1, double x2, double y2) {
+        if (count == xs.length) {
+            decimate();
+        }
+        // keep the pair in x order so the line doesn't go backwards
+        if (x1 <= x2) {
+            store(x1, y1);
+            store(x2, y2);
+        } else {
+            store(x2, y2);
+            store(x1, y1);
+        }
+    }
+
+    private void store(double x, double y) {
+        xs[count] = x;
+        ys[count] = y;
+        count++;
+    }
+
+    /**
+     * Halve the store by merging every two neighbouring min/max pairs into
+     * one, and tell the trainer to fold twice as many points per pair.
+     */
+    private void decimate() {
+        int n = 0;
+        for (int i = 0; i + 3 < count; i += 4) {
+            int lo = i;
+            int hi = i;
+            for (int j = i + 1; j < i + 4; j++) {
+                if (ys[j] < ys[lo]) {
+                    lo = j;
+                }
+                if (ys[j] > ys[hi]) {
+                    hi = j;
+                }
+            }
+            final int first = Math.min(lo, hi);
+            final int second = Math.max(lo, hi);
+            final double x1 = xs[first], y1 = ys[first], x2 = xs[second], y2 = ys[second];
+            xs[n] = x1;
+            ys[n] = y1;
+            xs[n + 1] = x2;
+            ys[n + 1] = y2;
+            n += 2;
+        }
+        count = n;
+        bucketSize *= 2;
+    }
+
+    private synchronized double[][] snapshot() {
+        final double[] x = new double[count];
+        final double[] y = new double[count];
+        System.arraycopy(xs, 0, x, 0, count);
+        System.arraycopy(ys, 0, y, 0, count);
+        return new double[][]{x, y};
+    }
+
+    private void publish() {
+        final double[][] points = snapshot();
+        SwingUtilities.invokeLater(() -> {
+            series.clear();
+            for (int i = 0; i < points[0].length; i++) {
+                series.add(points[0][i], points[1][i], false);
+            }
+            series.fireSeriesChanged();
+        });
+    }
+}
@@ -0,0 +1,154 @@
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Validation: scores a validation set on a FrozenNetwork on its own thread,
+ * so the training loop only pays for taking the view.
+ *
+ * Loss is the summed squared error, like BackPropagation.train, and accuracy
+ * is the fraction of patterns where every output is within 0.5 of the
+ * expected value. If the loss hasn't improved for patience evaluations,
+ * shouldStop turns true.
+ *
+ * While an evaluation is running further submissions are skipped, so the
+ * trainer never waits and at most one extra set of weights is kept alive.
+ */
+public class Validation implements AutoCloseable {
+    /**
+     * Receives the result of every evaluation, on the validation thread.
+     */
+    public interface Listener {
+        public void report(int epoch, double loss, double accuracy);
+    }
+
+    private final double[][] input;
+
+    private final double[][] expected;
+
+    private final int patience;
+
+    private final Listener listener;
+
+    private final ExecutorService executor;
+
+    private final AtomicBoolean busy = new AtomicBoolean();
+
+    private volatile boolean stop;
+
+    // Written on the validation thread, read by the training thread
+    private volatile double bestLoss = Double.MAX_VALUE;
+
+    private volatile int bestEpoch = -1;
+
+    private volatile FrozenNetwork best;
+
+    private int evaluationsWithoutImprovement;
+
+    /**
+     * @param input    the validation inputs
+     * @param expected the expected outputs
+     * @param patience how many evaluations without a lower loss before stopping
+     * @param listener receives every result, may be null
+     */
+    public Validation(double[][] input, double[][] expected, int patience, Listener listener) {
+        this.input = input;
+        this.expected = expected;
+        this.patience = patience;
+        this.listener = listener;
+        this.executor = Executors.newSingleThreadExecutor(runnable -> {
+            final Thread thread = new Thread(runnable, "validation");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Evaluate the current weights of the network in the background.
+     *
+     * @param epoch   the epoch the weights belong to
+     * @param network the network being trained
+     * @return false if skipped because the last evaluation is still running
+     */
+    public boolean submit(int epoch, FeedforwardNetwork network) {
+        if (!busy.compareAndSet(false, true)) {
+            return false;
+        }
+        final FrozenNetwork frozen = new FrozenNetwork(network);
+        executor.execute(() -> {
+            try {
+                evaluate(epoch, frozen);
+            } finally {
+                busy.set(false);
+            }
+        });
+        return true;
+    }
+
+    /**
+     * @return true once the loss stopped improving.
+     */
+    public boolean shouldStop() {
+        return stop;
+    }
+
+    public double getBestLoss() {
+        return bestLoss;
+    }
+
+    public int getBestEpoch() {
+        return bestEpoch;
+    }
+
+    /**
+     * @return the weights with the lowest loss so far, or null if nothing was evaluated.
+     */
+    public FrozenNetwork getBest() {
+        return best;
+    }
+
+    /**
+     * Wait for the running evaluation and stop the validation thread.
+     */
+    @Override
+    public void close() {
+        executor.shutdown();
+        try {
+            executor.awaitTermination(1, TimeUnit.MINUTES);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void evaluate(int epoch, FrozenNetwork frozen) {
+        double loss = 0;
+        int correct = 0;
+        for (int i = 0; i < input.length; i++) {
+            final double[] outputs = frozen.computeOutputs(input[i]);
+            boolean hit = true;
+            for (int j = 0; j < outputs.length; j++) {
+                final double diff = outputs[j] - expected[i][j];
+                loss += diff * diff;
+                hit &= Math.abs(diff) < 0.5;
+            }
+            if (hit) {
+                correct++;
+            }
+        }
+        final double accuracy = input.length == 0 ? 0 : (double) correct / input.length;
+
+        if (loss < bestLoss) {
+            bestLoss = loss;
+            bestEpoch = epoch;
+            best = frozen;
+            evaluationsWithoutImprovement = 0;
+        } else if (++evaluationsWithoutImprovement >= patience) {
+            stop = true;
+        }
+
+        if (listener != null) {
+            listener.report(epoch, loss, accuracy);
+        }
+    }
+}
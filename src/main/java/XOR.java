@@ -1,5 +1,8 @@
 import activation.ActivationSigmoid;
-import org.jfree.data.xy.XYSeries;
+
+import java.awt.*;
+import java.io.File;
+import java.io.IOException;
 
 public class XOR  {
     public static double XOR_INPUT[][] = {{0.0, 0.0}, {1.0, 0.0},
@@ -7,12 +10,13 @@ public class XOR  {
 
     public static double XOR_IDEAL[][] = {{0.0}, {1.0}, {1.0}, {0.0}};
 
-    public static void main(String[] args) {
+    public static void main(String[] args) throws IOException {
         FeedforwardNetwork network = new FeedforwardNetwork();
         network.addLayer(new FeedforwardLayer(2));
         network.addLayer(new FeedforwardLayer(4));
         network.addLayer(new FeedforwardLayer(1));
         network.reset(-0.5, 0.5);
+        network.tuneKernels(new File("kernel-profile.properties"));
 
 
         // network.addLayer(new FeedforwardLayer(new ActivationSigmoid(), 2));
@@ -20,16 +24,28 @@ public class XOR  {
 
         BackPropagation backPropagation = new BackPropagation(0.2, 0.9, XOR_INPUT, XOR_IDEAL, network);
 
+        Validation validation = new Validation(XOR_INPUT, XOR_IDEAL, 20,
+                (e, loss, accuracy) -> System.out.println("Validation #" + e + " Loss:" + loss
+                        + " Accuracy:" + accuracy));
+
         int epoch = 0;
         double error;
-        XYSeries series = new XYSeries("epochs");
+        TrainingCurve curve = new TrainingCurve("epochs", 1000);
+        if (!GraphicsEnvironment.isHeadless()) {
+            Draw draw = new Draw();
+            draw.draw(curve.getSeries());
+        }
         do {
             error = backPropagation.train();
             System.out
                     .println("Epoch #" + epoch + " Error:" + error);
             epoch++;
-            series.add(epoch, error);
-        } while ((epoch < 10000) && (error > 0.05));
+            curve.record(epoch, error);
+            if (epoch % 100 == 0) {
+                validation.submit(epoch, network);
+            }
+        } while ((epoch < 10000) && (error > 0.05) && !validation.shouldStop());
+        validation.close();
 
         System.out.println("Neural Network Results:");
         for (int i = 0; i < XOR_IDEAL.length; i++) {
@@ -37,8 +53,12 @@ public class XOR  {
             System.out.println(XOR_INPUT[i][0] + "," + XOR_INPUT[i][1]
                     + ", actual=" + actual[0] + ",ideal=" + XOR_IDEAL[i][0]);
         }
-        Draw draw = new Draw();
-        draw.draw(series);
+        network.save(new File("xor.model"));
+        curve.close();
+        if (GraphicsEnvironment.isHeadless()) {
+            curve.exportPNG(new File("training.png"), 560, 367);
+            curve.exportCSV(new File("training.csv"));
+        }
     }
 
 
@@ -0,0 +1,110 @@
+import initialization.InitializerXavier;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Train XOR with a ParameterServer in this process and several
+ * ParameterWorker processes on localhost, each owning a shard of the
+ * patterns.
+ *
+ * Exits with status 1 if any worker fails or the trained network's error
+ * is above MAX_ERROR, so it doubles as a check of the whole setup, see
+ * ParameterServerTest.
+ *
+ * Usage: XORParameterServer [workers] [epochs] [maxStaleness]
+ */
+public class XORParameterServer {
+    /**
+     * The highest acceptable error of the trained network, the same bound
+     * XOR trains to.
+     */
+    private static final double MAX_ERROR = 0.05;
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        if (args.length > 0 && args[0].equals("worker")) {
+            worker(args);
+            return;
+        }
+
+        final int workers = args.length > 0 ? Integer.parseInt(args[0]) : 2;
+        final int epochs = args.length > 1 ? Integer.parseInt(args[1]) : 5000;
+        final int maxStaleness = args.length > 2 ? Integer.parseInt(args[2]) : 4;
+
+        final FeedforwardNetwork network = createNetwork();
+        network.reset(new InitializerXavier(), 502);
+
+        final ParameterServer server = new ParameterServer(network, 0);
+        final Thread serverThread = new Thread(server, "parameter-server");
+        serverThread.start();
+
+        final String java = System.getProperty("java.home") + File.separator + "bin" + File.separator + "java";
+        final List<Process> processes = new ArrayList<>();
+        for (int shard = 0; shard < workers; shard++) {
+            processes.add(new ProcessBuilder(java, "-cp", System.getProperty("java.class.path"),
+                    XORParameterServer.class.getName(), "worker",
+                    String.valueOf(server.getPort()), String.valueOf(shard), String.valueOf(workers),
+                    String.valueOf(epochs), String.valueOf(maxStaleness))
+                    .inheritIO()
+                    .start());
+        }
+        boolean failed = false;
+        for (Process process : processes) {
+            if (process.waitFor() != 0) {
+                System.out.println("Worker exited with " + process.exitValue());
+                failed = true;
+            }
+        }
+        server.close();
+        serverThread.join();
+
+        System.out.println("Neural Network Results after " + server.getVersion() + " pushes:");
+        double error = 0;
+        for (int i = 0; i < XOR.XOR_IDEAL.length; i++) {
+            final double[] actual = network.computeOutputs(XOR.XOR_INPUT[i]);
+            error += Math.pow(actual[0] - XOR.XOR_IDEAL[i][0], 2);
+            System.out.println(XOR.XOR_INPUT[i][0] + "," + XOR.XOR_INPUT[i][1]
+                    + ", actual=" + actual[0] + ",ideal=" + XOR.XOR_IDEAL[i][0]);
+        }
+        System.out.println("Error:" + error);
+
+        if (failed || error > MAX_ERROR) {
+            System.out.println("Parameter server check failed");
+            System.exit(1);
+        }
+    }
+
+    private static void worker(String[] args) throws IOException {
+        final int port = Integer.parseInt(args[1]);
+        final int shard = Integer.parseInt(args[2]);
+        final int shards = Integer.parseInt(args[3]);
+        final int epochs = Integer.parseInt(args[4]);
+        final int maxStaleness = Integer.parseInt(args[5]);
+
+        final List<double[]> input = new ArrayList<>();
+        final List<double[]> ideal = new ArrayList<>();
+        for (int i = shard; i < XOR.XOR_INPUT.length; i += shards) {
+            input.add(XOR.XOR_INPUT[i]);
+            ideal.add(XOR.XOR_IDEAL[i]);
+        }
+
+        try (ParameterWorker worker = new ParameterWorker("localhost", port, maxStaleness, 0.2, 0.9,
+                input.toArray(new double[0][]), ideal.toArray(new double[0][]), createNetwork())) {
+            double error = 0;
+            for (int epoch = 0; epoch < epochs; epoch++) {
+                error = worker.train();
+            }
+            System.out.println("Worker #" + shard + " Error:" + error);
+        }
+    }
+
+    private static FeedforwardNetwork createNetwork() {
+        final FeedforwardNetwork network = new FeedforwardNetwork();
+        network.addLayer(new FeedforwardLayer(2));
+        network.addLayer(new FeedforwardLayer(4));
+        network.addLayer(new FeedforwardLayer(1));
+        return network;
+    }
+}
@@ -0,0 +1,17 @@
+package initialization;
+
+import math.Matrix;
+
+import java.util.SplittableRandom;
+
+public interface Initializer {
+    /**
+     * Fill a weight and bias matrix with random values.
+     * The last row of the matrix holds the bias, so the fan-in of the layer
+     * is one less than the number of rows.
+     *
+     * @param matrix The matrix to fill.
+     * @param random The generator to draw from, it is split and not shared.
+     */
+    public void initialize(Matrix matrix, SplittableRandom random);
+}
@@ -0,0 +1,18 @@
+package initialization;
+
+import math.Matrix;
+
+import java.util.SplittableRandom;
+
+/**
+ * He uniform initialization: U(-a, a) with a = sqrt(6 / fanIn).
+ * Suits ReLU-like layers.
+ */
+public class InitializerHe implements Initializer {
+    @Override
+    public void initialize(Matrix matrix, SplittableRandom random) {
+        final int fanIn = Math.max(1, matrix.getRows() - 1);
+        final double limit = Math.sqrt(6.0 / fanIn);
+        matrix.randomize(-limit, limit, random);
+    }
+}
@@ -0,0 +1,21 @@
+package initialization;
+
+import math.Matrix;
+
+import java.util.SplittableRandom;
+
+public class InitializerUniform implements Initializer {
+    private final double lower;
+
+    private final double upper;
+
+    public InitializerUniform(double lower, double upper) {
+        this.lower = lower;
+        this.upper = upper;
+    }
+
+    @Override
+    public void initialize(Matrix matrix, SplittableRandom random) {
+        matrix.randomize(lower, upper, random);
+    }
+}
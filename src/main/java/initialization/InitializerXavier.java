@@ -0,0 +1,19 @@
+package initialization;
+
+import math.Matrix;
+
+import java.util.SplittableRandom;
+
+/**
+ * Xavier (Glorot) uniform initialization: U(-a, a) with a = sqrt(6 / (fanIn + fanOut)).
+ * Suits sigmoid and tanh layers.
+ */
+public class InitializerXavier implements Initializer {
+    @Override
+    public void initialize(Matrix matrix, SplittableRandom random) {
+        final int fanIn = matrix.getRows() - 1;
+        final int fanOut = matrix.getCols();
+        final double limit = Math.sqrt(6.0 / (fanIn + fanOut));
+        matrix.randomize(-limit, limit, random);
+    }
+}
@@ -1,11 +1,42 @@
 package math;
 
+import java.util.SplittableRandom;
+import java.util.stream.IntStream;
+
+/**
+ * A dense matrix of doubles.
+ *
+ * The arithmetic methods (multiply, add(Matrix)) return a new Matrix, the
+ * training code relies on that: a layer's matrix is replaced, never changed
+ * in place, so a FrozenNetwork can keep using the old one. The in-place
+ * methods (set, add(r, c, v), clear, randomize) bump the modification
+ * count, which readers holding on to a matrix can check.
+ */
 public class Matrix {
+    /**
+     * Matrices with at least this many elements are randomized in parallel.
+     */
+    private static final int PARALLEL_RANDOMIZE_SIZE = 1 << 16;
+
     double[][] matrix;
+
+    /**
+     * Bumped by every method that changes an element in place, so cached
+     * results derived from this matrix can tell they are stale.
+     */
+    private int modCount;
     public Matrix(final int rows, final int cols) {
         this.matrix = new double[rows][cols];
     }
 
+    /**
+     * Copy another matrix.
+     * @param source the matrix to copy
+     */
+    public Matrix(Matrix source) {
+        this(source.matrix);
+    }
+
     public Matrix(double[][] source) {
         matrix = new double[source.length][source[0].length];
         for (int r = 0; r < getRows(); r++) {
@@ -17,6 +48,14 @@ public class Matrix {
 
     public void set(int r, int c, double v) {
         matrix[r][c] = v;
+        modCount++;
+    }
+
+    /**
+     * @return how many times elements were changed in place.
+     */
+    public int getModCount() {
+        return modCount;
     }
 
     public Matrix getCol(int col) {
@@ -78,11 +117,35 @@ public class Matrix {
      * @param upper upper bound
      */
     public void randomize(double lower, double upper) {
+        randomize(lower, upper, new SplittableRandom());
+    }
+
+    /**
+     * Initialize the matrix with elements which >= lower and <= upper.
+     * Every row draws from its own generator split off from random in row
+     * order, so the result only depends on the seed of random, not on how
+     * many threads fill the rows.
+     * @param lower lower bound
+     * @param upper upper bound
+     * @param random the generator to split the row generators from
+     */
+    public void randomize(double lower, double upper, SplittableRandom random) {
+        final SplittableRandom[] rowRandoms = new SplittableRandom[getRows()];
         for (int i = 0; i < getRows(); i++) {
+            rowRandoms[i] = random.split();
+        }
+
+        IntStream rows = IntStream.range(0, getRows());
+        if (size() >= PARALLEL_RANDOMIZE_SIZE) {
+            rows = rows.parallel();
+        }
+        rows.forEach(i -> {
+            final SplittableRandom rowRandom = rowRandoms[i];
             for (int j = 0; j < getCols(); j++) {
-                this.matrix[i][j] = (Math.random() * (upper - lower)) + lower;
+                this.matrix[i][j] = (rowRandom.nextDouble() * (upper - lower)) + lower;
             }
-        }
+        });
+        modCount++;
     }
 
     /**
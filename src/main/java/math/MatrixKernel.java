@@ -0,0 +1,12 @@
+package math;
+
+public interface MatrixKernel {
+    /**
+     * Multiply a row vector with a matrix: result[c] = sum(input[r] * m[r][c]).
+     *
+     * @param input  the row vector, its length must match the rows of the matrix.
+     * @param m      the matrix.
+     * @param result holds the product, its length must match the cols of the matrix.
+     */
+    public void multiply(double[] input, Matrix m, double[] result);
+}
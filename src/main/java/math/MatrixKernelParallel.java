@@ -0,0 +1,21 @@
+package math;
+
+import java.util.stream.IntStream;
+
+/**
+ * Splits the work across the common fork/join pool. Only pays off when the
+ * matrix is large enough to hide the cost of forking.
+ */
+public class MatrixKernelParallel implements MatrixKernel {
+    @Override
+    public void multiply(double[] input, Matrix m, double[] result) {
+        final double[][] w = m.matrix;
+        IntStream.range(0, m.getCols()).parallel().forEach(c -> {
+            double sum = 0;
+            for (int r = 0; r < w.length; r++) {
+                sum += input[r] * w[r][c];
+            }
+            result[c] = sum;
+        });
+    }
+}
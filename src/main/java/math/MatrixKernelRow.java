@@ -0,0 +1,23 @@
+package math;
+
+/**
+ * Walks the matrix row by row so every inner loop reads one contiguous
+ * double[] instead of striding across rows. Wins once layers get wide.
+ */
+public class MatrixKernelRow implements MatrixKernel {
+    @Override
+    public void multiply(double[] input, Matrix m, double[] result) {
+        final double[][] w = m.matrix;
+        final int cols = m.getCols();
+        for (int c = 0; c < cols; c++) {
+            result[c] = 0;
+        }
+        for (int r = 0; r < w.length; r++) {
+            final double x = input[r];
+            final double[] row = w[r];
+            for (int c = 0; c < cols; c++) {
+                result[c] += x * row[c];
+            }
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package math;
+
+/**
+ * Computes one column at a time, the same way Matrix.getCol and
+ * Matrix.dotProduct do. Cheapest for tiny layers.
+ */
+public class MatrixKernelScalar implements MatrixKernel {
+    @Override
+    public void multiply(double[] input, Matrix m, double[] result) {
+        final double[][] w = m.matrix;
+        for (int c = 0; c < m.getCols(); c++) {
+            double sum = 0;
+            for (int r = 0; r < w.length; r++) {
+                sum += input[r] * w[r][c];
+            }
+            result[c] = sum;
+        }
+    }
+}
@@ -0,0 +1,139 @@
+package math;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Properties;
+
+/**
+ * Times every candidate kernel on the actual matrix dimensions and keeps the
+ * fastest one. Decisions are cached in a properties file keyed by
+ * "rows x cols @ processors" so later startups on the same machine skip
+ * the timing runs.
+ */
+public class MatrixKernelTuner {
+    /**
+     * How long every candidate is warmed up, and then timed, in nanoseconds.
+     */
+    private static final long BUDGET = 2_000_000;
+
+    private final Map<String, MatrixKernel> kernels = new LinkedHashMap<>();
+
+    private final Properties profile = new Properties();
+
+    private final File profileFile;
+
+    // Whether a shape was timed since the profile was read
+    private boolean changed;
+
+    /**
+     * Construct a tuner backed by a profile file.
+     *
+     * @param profileFile the file that caches the decisions, it is read if it
+     *                    exists. May be null to always tune.
+     */
+    public MatrixKernelTuner(final File profileFile) {
+        this.profileFile = profileFile;
+        kernels.put("scalar", new MatrixKernelScalar());
+        kernels.put("row", new MatrixKernelRow());
+        kernels.put("blocked", new MatrixKernelBlocked());
+        // with one processor the parallel kernel can't win, and its first
+        // call alone costs milliseconds to start the common pool
+        if (Runtime.getRuntime().availableProcessors() > 1) {
+            kernels.put("parallel", new MatrixKernelParallel());
+        }
+
+        if (profileFile != null && profileFile.isFile()) {
+            try (InputStream in = new FileInputStream(profileFile)) {
+                profile.load(in);
+            } catch (IOException e) {
+                // a broken profile only costs us a re-tune
+                profile.clear();
+            }
+        }
+    }
+
+    /**
+     * Select the fastest kernel for a matrix of the given shape, timing the
+     * candidates only if the profile doesn't know the shape yet.
+     *
+     * @param rows the rows of the matrix
+     * @param cols the cols of the matrix
+     * @return the selected kernel
+     */
+    public MatrixKernel select(final int rows, final int cols) {
+        final String key = rows + "x" + cols + "@" + Runtime.getRuntime().availableProcessors();
+        final MatrixKernel cached = kernels.get(profile.getProperty(key));
+        if (cached != null) {
+            return cached;
+        }
+
+        final Matrix m = new Matrix(rows, cols);
+        m.randomize(-1, 1);
+        final double[] input = new double[rows];
+        final double[] result = new double[cols];
+        for (int i = 0; i < rows; i++) {
+            input[i] = 1.0 / (i + 1);
+        }
+
+        String best = null;
+        double bestTime = Double.MAX_VALUE;
+        for (Map.Entry<String, MatrixKernel> entry : kernels.entrySet()) {
+            final MatrixKernel kernel = entry.getValue();
+            run(kernel, input, m, result);
+            final double time = run(kernel, input, m, result);
+            if (time < bestTime) {
+                bestTime = time;
+                best = entry.getKey();
+            }
+        }
+
+        profile.setProperty(key, best);
+        changed = true;
+        return kernels.get(best);
+    }
+
+    /**
+     * Call the kernel over and over for BUDGET nanoseconds.
+     *
+     * @return the average time of one call, in nanoseconds
+     */
+    private static double run(MatrixKernel kernel, double[] input, Matrix m, double[] result) {
+        final long start = System.nanoTime();
+        long now;
+        long calls = 0;
+        do {
+            kernel.multiply(input, m, result);
+            calls++;
+            now = System.nanoTime();
+        } while (now - start < BUDGET);
+        return (double) (now - start) / calls;
+    }
+
+    /**
+     * Write the decisions back to the profile file, if any shape was timed.
+     * The lines are written by hand rather than with Properties.store, whose
+     * date header alone costs tens of milliseconds on a cold JVM.
+     *
+     * @throws IOException if the profile can't be written
+     */
+    public void save() throws IOException {
+        if (profileFile == null || !changed) {
+            return;
+        }
+        try (BufferedWriter writer = new BufferedWriter(new FileWriter(profileFile))) {
+            writer.write("# kernel per matrix shape (rows x cols @ processors)");
+            writer.newLine();
+            for (final String key : profile.stringPropertyNames()) {
+                writer.write(key + "=" + profile.getProperty(key));
+                writer.newLine();
+            }
+        }
+        changed = false;
+    }
+}
@@ -0,0 +1,162 @@
+import activation.ActivationFunction;
+import initialization.InitializerXavier;
+import org.junit.jupiter.api.Test;
+
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks the passes of NetworkCompiler, compiled and fallback, against the
+ * interpreted FeedforwardNetwork and BackPropagation.
+ */
+public class NetworkCompilerTest {
+    private static final double TOLERANCE = 1e-12;
+
+    /**
+     * tanh scaled into (0, 1), to take the non-inlined activation path.
+     */
+    private static final ActivationFunction TANH = new ActivationFunction() {
+        @Override
+        public double activation(double d) {
+            return (Math.tanh(d) + 1) / 2;
+        }
+
+        @Override
+        public double derivative(double d) {
+            return 2 * d * (1 - d);
+        }
+    };
+
+    @Test
+    public void compiledForwardMatchesInterpreted() {
+        for (final int[] topology : new int[][]{{2, 4, 1}, {3, 5, 4, 2}}) {
+            final FeedforwardNetwork network = createNetwork(topology, false);
+            final CompiledNetwork compiled = NetworkCompiler.compile(network);
+            assertTrue(compiled.isCompiled(), compiled.getFallbackReason());
+            assertNull(compiled.getFallbackReason());
+            assertForwardMatches(network, compiled);
+        }
+    }
+
+    @Test
+    public void compiledForwardMatchesWithCustomActivation() {
+        final FeedforwardNetwork network = createNetwork(new int[]{3, 4, 2}, true);
+        final CompiledNetwork compiled = NetworkCompiler.compile(network);
+        assertTrue(compiled.isCompiled(), compiled.getFallbackReason());
+        assertForwardMatches(network, compiled);
+    }
+
+    @Test
+    public void compiledTrainingMatchesInterpreted() {
+        for (final int[] topology : new int[][]{{2, 4, 1}, {3, 5, 4, 2}}) {
+            final CompiledNetwork compiled = assertTrainingMatches(topology, false);
+            assertTrue(compiled.isCompiled(), compiled.getFallbackReason());
+        }
+        assertTrue(assertTrainingMatches(new int[]{3, 4, 2}, true).isCompiled());
+    }
+
+    @Test
+    public void oneCompileSurvivesTraining() {
+        final FeedforwardNetwork network = createNetwork(new int[]{2, 4, 1}, false);
+        final CompiledNetwork compiled = NetworkCompiler.compile(network);
+        final BackPropagation backPropagation = new BackPropagation(0.2, 0.9, XOR.XOR_INPUT,
+                XOR.XOR_IDEAL, network);
+        for (int epoch = 0; epoch < 50; epoch++) {
+            backPropagation.train();
+        }
+        assertForwardMatches(network, compiled);
+    }
+
+    @Test
+    public void fallbackMatchesInterpreted() {
+        final int[] topology = {20, 10, 1};
+        final FeedforwardNetwork network = createNetwork(topology, false);
+        assertTrue(network.getWeightCount() > NetworkCompiler.MAX_WEIGHTS);
+
+        final CompiledNetwork fallback = NetworkCompiler.compile(network);
+        assertFalse(fallback.isCompiled());
+        assertNotNull(fallback.getFallbackReason());
+        assertTrue(fallback.getFallbackReason().contains("too many"), fallback.getFallbackReason());
+        assertForwardMatches(network, fallback);
+
+        assertFalse(assertTrainingMatches(topology, false).isCompiled());
+    }
+
+    @Test
+    public void rejectsWrongLengths() {
+        final FeedforwardNetwork network = createNetwork(new int[]{2, 4, 1}, false);
+        final CompiledNetwork compiled = NetworkCompiler.compile(network);
+        final CompiledNetwork fallback = new InterpretedNetwork(network, "test");
+        for (final CompiledNetwork pass : new CompiledNetwork[]{compiled, fallback}) {
+            assertThrows(IllegalArgumentException.class, () -> pass.computeOutputs(new double[3]));
+            assertThrows(IllegalArgumentException.class,
+                    () -> pass.calcError(new double[2], new double[2], new double[network.getWeightCount()]));
+            assertThrows(IllegalArgumentException.class,
+                    () -> pass.calcError(new double[2], new double[1], new double[1]));
+        }
+    }
+
+    private static void assertForwardMatches(FeedforwardNetwork network, CompiledNetwork pass) {
+        final SplittableRandom random = new SplittableRandom(7);
+        final int inputCount = network.getLayers().get(0).getNeuronCount();
+        for (int i = 0; i < 100; i++) {
+            final double[] input = new double[inputCount];
+            for (int j = 0; j < inputCount; j++) {
+                input[j] = random.nextDouble(-2, 2);
+            }
+            assertArrayEquals(network.computeOutputs(input).clone(), pass.computeOutputs(input), TOLERANCE);
+        }
+    }
+
+    /**
+     * Train two identical networks, one through the layers and one through
+     * the compiled passes, and compare their weights.
+     *
+     * @return the passes the second network was trained with
+     */
+    private static CompiledNetwork assertTrainingMatches(int[] topology, boolean customActivation) {
+        final SplittableRandom random = new SplittableRandom(11);
+        final int outputCount = topology[topology.length - 1];
+        final double[][] input = new double[8][topology[0]];
+        final double[][] expected = new double[8][outputCount];
+        for (int i = 0; i < input.length; i++) {
+            for (int j = 0; j < input[i].length; j++) {
+                input[i][j] = random.nextDouble(-1, 1);
+            }
+            for (int j = 0; j < outputCount; j++) {
+                expected[i][j] = random.nextDouble();
+            }
+        }
+
+        final FeedforwardNetwork interpreted = createNetwork(topology, customActivation);
+        final FeedforwardNetwork network = createNetwork(topology, customActivation);
+        final BackPropagation plain = new BackPropagation(0.2, 0.9, input, expected, interpreted);
+        final BackPropagation fast = new BackPropagation(0.2, 0.9, input, expected, network);
+        final CompiledNetwork compiled = NetworkCompiler.compile(network);
+        fast.setCompiled(compiled);
+
+        for (int epoch = 0; epoch < 100; epoch++) {
+            assertEquals(plain.train(), fast.train(), 1e-9, "error of epoch " + epoch);
+        }
+        assertArrayEquals(interpreted.getWeights(), network.getWeights(), 1e-9);
+        return compiled;
+    }
+
+    private static FeedforwardNetwork createNetwork(int[] topology, boolean customActivation) {
+        final FeedforwardNetwork network = new FeedforwardNetwork();
+        for (int i = 0; i < topology.length; i++) {
+            network.addLayer(customActivation && i > 0
+                    ? new FeedforwardLayer(TANH, topology[i])
+                    : new FeedforwardLayer(topology[i]));
+        }
+        network.reset(new InitializerXavier(), 42);
+        return network;
+    }
+}
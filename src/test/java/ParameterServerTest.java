@@ -0,0 +1,44 @@
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Runs XORParameterServer with several worker processes on localhost,
+ * each in its own JVM.
+ */
+public class ParameterServerTest {
+    @Test
+    public void trainsXorAcrossWorkerProcesses() throws Exception {
+        assertEquals(0, run("3", "3000", "4"));
+    }
+
+    @Test
+    public void failsWhenTheNetworkIsNotTrained() throws Exception {
+        assertEquals(1, run("2", "5", "4"));
+    }
+
+    /**
+     * @return the exit status of XORParameterServer with the given arguments
+     */
+    private static int run(String... args) throws Exception {
+        final String java = System.getProperty("java.home") + File.separator + "bin" + File.separator + "java";
+        final String[] command = new String[args.length + 4];
+        command[0] = java;
+        command[1] = "-cp";
+        command[2] = System.getProperty("java.class.path");
+        command[3] = XORParameterServer.class.getName();
+        System.arraycopy(args, 0, command, 4, args.length);
+
+        final Process process = new ProcessBuilder(command).inheritIO().start();
+        try {
+            assertTrue(process.waitFor(2, TimeUnit.MINUTES), "XORParameterServer timed out");
+        } finally {
+            process.destroyForcibly();
+        }
+        return process.exitValue();
+    }
+}